@@ -3,7 +3,6 @@ package com.ltx.path;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 
 /**
@@ -17,13 +16,19 @@ import java.util.concurrent.CopyOnWriteArraySet;
  */
 public class RouteManagerImpl implements RouteManager {
 
-	//By using concurrentHashMap with value as CopyOnWriteArraySet, will not require 
-	//to take lock for adding connection and retrieving route from different thread.
-	//CopyOnWriteArraySet provide changes in connection between two threads and  iterator of end-point in
-	// same order as cities has been added. Same order will help to return always same first route between two
-	//city1 to city2 and city2 to city1 without any sorting.
-	//If we had not expose addConnection() method and had initialize all route in constructor, we could use regular HashMap.
-	private final Map<String, CopyOnWriteArraySet<String>> allNodes = new ConcurrentHashMap<>();
+	//Every city is given a dense int id on first use, id is index into nodes array. Search works on these ids
+	//so it can use plain int arrays (see SearchScratch) instead of allocating queue, visited set and path copies.
+	//nodeIds is a ConcurrentHashMap so lookup from different thread does not require lock, writes (addEdge) are
+	//serialized on nodesLock. Neighbours of a city are kept in same order as they have been added, same order
+	//will help to return always same first route between city1 to city2 and city2 to city1 without any sorting.
+	private final Map<String, Integer> nodeIds = new ConcurrentHashMap<>();
+	private final Object nodesLock = new Object();
+	private volatile Node[] nodes = new Node[16];
+	//written after a node is stored in nodes array, a reader reading nodeCount will see all nodes below it.
+	private volatile int nodeCount;
+
+	//scratch buffers are reused by every search on same thread, so steady state search does not allocate.
+	private final ThreadLocal<SearchScratch> searchScratch = ThreadLocal.withInitial(SearchScratch::new);
 
 	/**
 	 * 
@@ -55,9 +60,9 @@ public class RouteManagerImpl implements RouteManager {
 	 */
 	@Override
 	public boolean connected(String city1, String city2) {
-		// we just need to know if a route exist.
+		// we just need to know if a route exist, no need to build the route.
 		if(verifyEndPointNameValidity(city1, city2)){
-		     return findRoute(city1.trim(), city2.trim()).size() > 0;
+		     return searchRoute(city1.trim(), city2.trim()) >= 0;
 		}
 		return false;
 	}
@@ -104,10 +109,9 @@ public class RouteManagerImpl implements RouteManager {
 	}
 
 	/**
-	 * This function search city2 route by iterating over all neighbors of
-	 * city1. Its utilizing level traversal. There is a possibility of multiple
-	 * routes between city1 and city2, this function return first shortest(minimum number of stops) route found.  If source or destination
-	 * does not exist in routes, empty list will be returned. If no route is found, empty list will be returned.
+	 * This function return first shortest(minimum number of stops) route found from city1 to city2, see searchRoute(...).
+	 * If source or destination does not exist in routes, empty list will be returned. If no route is found, empty list 
+	 * will be returned. Only allocation is the returned list.
 	 * 
 	 * @param city1
 	 *            source
@@ -116,40 +120,73 @@ public class RouteManagerImpl implements RouteManager {
 	 * 
 	 */
 	private List<String> findRoute(String city1, String city2) {
-		if(isEndPointExist(city1, city2)){
-			final Queue<LinkedList<String>> nodesToSearched = new LinkedList<>();
-			final Set<String> nodesVisitied = new HashSet<String>();
-			// current path, using LinkedList as it provide getLast() and use less memory
-			LinkedList<String> currentPath = new LinkedList<>();
-			currentPath.add(city1);
-			nodesToSearched.add(currentPath);
-			nodesVisitied.add(city1);
-			
-			while (!nodesToSearched.isEmpty()) {
-				currentPath = nodesToSearched.poll();
-				final String currentNode = currentPath.getLast();
-
-				if (currentNode.equalsIgnoreCase(city2)) {
-					return currentPath; 
-					// if we are interested in finding first route, this path will consist lesser or equal number of stops if there
-					// exist any other alternative route.
-				}
+		final int destination = searchRoute(city1, city2);
+		if (destination < 0) {
+			return Collections.emptyList();
+		}
+		final Node[] nodes = this.nodes;
+		final int[] predecessor = searchScratch.get().predecessor;
+		int stops = 1;
+		for (int node = destination; predecessor[node] >= 0; node = predecessor[node]) {
+			stops++;
+		}
+		// walk back from destination to source, then reverse in place.
+		final List<String> route = new ArrayList<>(stops);
+		for (int node = destination; node >= 0; node = predecessor[node]) {
+			route.add(nodes[node].name);
+		}
+		Collections.reverse(route);
+		return route;
+	}
 
-				final Set<String> allConnectedNodes = allNodes.get(currentNode);
-				for (String connectedNode : allConnectedNodes) {
-					if (!nodesVisitied.contains(connectedNode)) {
-						// we need to copy previous path and append new city as we don't know on in which one we find destination.w 
-						LinkedList<String> newPossiblePath = new LinkedList<>(currentPath);
-						newPossiblePath.add(connectedNode);
-						nodesToSearched.add(newPossiblePath);
-						nodesVisitied.add(connectedNode);
-					}
+	/**
+	 * This function search city2 by iterating over all neighbors of city1. Its utilizing level traversal, so first
+	 * route found consist lesser or equal number of stops if there exist any other alternative route.
+	 * Search use scratch buffers of current thread, predecessor of every reached node is left in
+	 * SearchScratch.predecessor (-1 for source) to rebuild the route.
+	 * Cities added by other thread after search has started are not visited.
+	 * 
+	 * @param city1
+	 *            source
+	 * @param city2
+	 *            destination
+	 * @return id of destination node, or -1 if source or destination does not exist or they are not connected.
+	 */
+	private int searchRoute(String city1, String city2) {
+		if (!isEndPointExist(city1, city2)) {
+			return -1;
+		}
+		// ids are read before nodeCount, so both are below count.
+		final int source = nodeIds.get(city1);
+		final int destination = nodeIds.get(city2);
+		final int count = nodeCount;
+		final Node[] nodes = this.nodes;
+		final SearchScratch scratch = searchScratch.get();
+		final int epoch = scratch.begin(count);
+		final int[] queue = scratch.queue;
+		final int[] visited = scratch.visited;
+		final int[] predecessor = scratch.predecessor;
+
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		visited[source] = epoch;
+		predecessor[source] = -1;
+
+		while (head < tail) {
+			final int currentNode = queue[head++];
+			if (currentNode == destination) {
+				return currentNode;
+			}
+			for (int connectedNode : nodes[currentNode].neighbours) {
+				if (connectedNode < count && visited[connectedNode] != epoch) {
+					visited[connectedNode] = epoch;
+					predecessor[connectedNode] = currentNode;
+					queue[tail++] = connectedNode;
 				}
-
 			}
 		}
-
-		return Collections.emptyList();
+		return -1;
 	}
 
 	/**
@@ -159,12 +196,43 @@ public class RouteManagerImpl implements RouteManager {
 	 * @param nodeTwo second end point of edge
 	 */
 	private void addEdge(String nodeOne, String nodeTwo) {
-		CopyOnWriteArraySet<String> connectedNodes = allNodes.get(nodeOne);
-		if (connectedNodes == null) {
-			connectedNodes = new CopyOnWriteArraySet<>();
-			allNodes.put(nodeOne, connectedNodes);
+		synchronized (nodesLock) {
+			// nodes is read after both ids are assigned, as adding a city can grow the array.
+			final int nodeId = getOrAddNode(nodeOne);
+			final int connectedNode = getOrAddNode(nodeTwo);
+			final Node node = nodes[nodeId];
+			final int[] neighbours = node.neighbours;
+			for (int neighbour : neighbours) {
+				if (neighbour == connectedNode) {
+					return;
+				}
+			}
+			// copy on write, a search iterating over old neighbours is not affected.
+			final int[] newNeighbours = Arrays.copyOf(neighbours, neighbours.length + 1);
+			newNeighbours[neighbours.length] = connectedNode;
+			node.neighbours = newNeighbours;
 		}
-		connectedNodes.add(nodeTwo);
+	}
+
+	/**
+	 * This function return id of city, city is added if does not exist. Caller must hold nodesLock.
+	 * @param city  city name
+	 */
+	private int getOrAddNode(String city) {
+		final Integer id = nodeIds.get(city);
+		if (id != null) {
+			return id;
+		}
+		final int newId = nodeCount;
+		Node[] nodes = this.nodes;
+		if (newId == nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodes.length * 2);
+			this.nodes = nodes;
+		}
+		nodes[newId] = new Node(city);
+		nodeCount = newId + 1;
+		nodeIds.put(city, newId);
+		return newId;
 	}
 
 	/**
@@ -189,11 +257,53 @@ public class RouteManagerImpl implements RouteManager {
 	 */
 	private boolean isEndPointExist(final String source, final String destination) {
 		
-		if (!source.equalsIgnoreCase(destination) && allNodes.containsKey(source) && allNodes.containsKey(destination)) {return true;}
+		if (!source.equalsIgnoreCase(destination) && nodeIds.containsKey(source) && nodeIds.containsKey(destination)) {return true;}
 		
 		return false;
 	}
 
+	/**
+	 * City and ids of its connected cities, in order they have been added.
+	 */
+	private static final class Node {
+		private final String name;
+		private volatile int[] neighbours = new int[0];
+
+		private Node(final String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * Per thread buffers for searchRoute(...). Buffers only grow when graph grow. Visited marks are not cleared 
+	 * between searches, each search use a new epoch and a node is visited only if its mark is equal to current epoch.
+	 */
+	private static final class SearchScratch {
+		private int[] queue = new int[0];
+		private int[] visited = new int[0];
+		private int[] predecessor = new int[0];
+		private int epoch;
+
+		/**
+		 * Make buffers large enough for nodeCount nodes and return epoch for new search.
+		 * @param nodeCount  number of nodes in graph
+		 */
+		private int begin(final int nodeCount) {
+			if (visited.length < nodeCount) {
+				final int capacity = Math.max(nodeCount, visited.length * 2);
+				queue = new int[capacity];
+				visited = Arrays.copyOf(visited, capacity);
+				predecessor = new int[capacity];
+			}
+			if (++epoch == 0) {
+				// epoch wrapped around, old marks might look like current one.
+				Arrays.fill(visited, 0);
+				epoch = 1;
+			}
+			return epoch;
+		}
+	}
+
 	/**
 	 * this class warp two node (city) connectivity.
 	 * 
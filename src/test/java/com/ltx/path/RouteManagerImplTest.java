@@ -1,11 +1,14 @@
 package com.ltx.path;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -170,6 +173,82 @@ public class RouteManagerImplTest {
 		
 		
 		
+	}
+	
+	@Test
+	public void testRepeatedSearchDoesNotAllocate(){
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+		final long threadId = Thread.currentThread().getId();
+		final int calls = 10000;
+		
+		//warm up, scratch buffers are created and grown here.
+		for(int i = 0; i < calls; i++){
+			routeManager.connected("Atlanta", "Montreal");
+			routeManager.getRoute("Atlanta", "Montreal");
+		}
+		
+		//connected should not allocate at all.
+		long before = allocationBean.getThreadAllocatedBytes(threadId);
+		for(int i = 0; i < calls; i++){
+			assertTrue("Expected connected", routeManager.connected("Atlanta", "Montreal"));
+			assertFalse("Expected NOT connected", routeManager.connected("Atlanta", "Omaha"));
+		}
+		long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+		assertTrue("connected allocated " + allocated + " bytes", allocated < calls);
+		
+		//getRoute should only allocate returned route (ArrayList and its backing array).
+		before = allocationBean.getThreadAllocatedBytes(threadId);
+		for(int i = 0; i < calls; i++){
+			assertEquals(6, routeManager.getRoute("Atlanta", "Montreal").size());
+		}
+		allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+		assertTrue("getRoute allocated " + allocated + " bytes", allocated < calls * 128L);
+	}
+	
+	@Test
+	public void testRouteConnectivityAfterGraphGrows(){
+		//add enough cities to grow node table and scratch buffers after a search has been done.
+		assertTrue("Expected connected", routeManager.connected("Atlanta", "Louisville"));
+		String previousCity = "Louisville";
+		for(int i = 0; i < 100; i++){
+			String city = "City" + i;
+			routeManager.addConnection(previousCity, city);
+			previousCity = city;
+		}
+		List<String> actualRoute = routeManager.getRoute("Atlanta", previousCity);
+		assertEquals(104, actualRoute.size());
+		assertEquals("Atlanta", actualRoute.get(0));
+		assertEquals("Louisville", actualRoute.get(3));
+		assertEquals(previousCity, actualRoute.get(103));
+		assertFalse("Expected NOT connected", routeManager.connected("Omaha", previousCity));
+	}
+	
+	@Test
+	public void testConnectingTwoNewCitiesWhenNodeTableIsFull(){
+		final String[][] newRoutes = {{"New1", "New2"}, {"New2", "New1"}};
+		for(String[] newRoute : newRoutes){
+			//fill node table to its capacity (power of two) with unrelated cities.
+			final RouteManager fullRouteManager = new RouteManagerImpl();
+			for(int i = 0; i < 16; i += 2){
+				fullRouteManager.addConnection("City" + i, "City" + (i + 1));
+			}
+			
+			//both cities are new, first one grows the node table.
+			fullRouteManager.addConnection(newRoute[0], newRoute[1]);
+			final List<String> expectedRoute = new ArrayList<>();
+			expectedRoute.add(newRoute[0]);
+			expectedRoute.add(newRoute[1]);
+			assertTrue("Expected connected", fullRouteManager.connected(newRoute[0], newRoute[1]));
+			assertEquals(expectedRoute, fullRouteManager.getRoute(newRoute[0], newRoute[1]));
+			
+			Collections.reverse(expectedRoute);
+			assertTrue("Expected connected", fullRouteManager.connected(newRoute[1], newRoute[0]));
+			assertEquals(expectedRoute, fullRouteManager.getRoute(newRoute[1], newRoute[0]));
+			assertFalse("Expected NOT connected", fullRouteManager.connected(newRoute[0], "City0"));
+		}
 	}
 	
 	public final static List<String> routeList = new ArrayList<>();